@@ -0,0 +1,62 @@
+package com.siemens.internship.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process invalidation bus for the second-level cache.
+ * Every application instance in the jvm (e.g. several contexts started by a test) registers on the same
+ * shared subscriber list; a change committed by one node is delivered to all the other nodes so they can
+ * drop their stale cache entries. Messages are never delivered back to the node that published them.
+ */
+@Component
+public class CacheInvalidationBus {
+    //shared between all the application contexts of the jvm
+    private static final List<Subscription> SUBSCRIPTIONS = new CopyOnWriteArrayList<>();
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public record Invalidation(String sourceNodeId, String entityName, Object id) {
+    }
+
+    //returned by subscribe, to unsubscribe again
+    public record Subscription(String nodeId, Consumer<Invalidation> listener) {
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Subscription subscribe(Consumer<Invalidation> listener) {
+        Subscription subscription = new Subscription(nodeId, listener);
+        SUBSCRIPTIONS.add(subscription);
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        SUBSCRIPTIONS.remove(subscription);
+    }
+
+    /**
+     * @param id the id of the changed entity, or null when only the query results have to be dropped
+     */
+    public void publish(String entityName, Object id) {
+        Invalidation invalidation = new Invalidation(nodeId, entityName, id);
+        for (Subscription subscription : SUBSCRIPTIONS) {
+            if (!subscription.nodeId().equals(nodeId)) {
+                subscription.listener().accept(invalidation);
+            }
+        }
+    }
+
+    //the node is going away, stop delivering messages to it (subscribers that unsubscribed earlier are already gone)
+    @PreDestroy
+    public void destroy() {
+        SUBSCRIPTIONS.removeIf(subscription -> subscription.nodeId().equals(nodeId));
+    }
+}
@@ -0,0 +1,101 @@
+package com.siemens.internship.cache;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Bridges the hibernate second-level cache of this node and the {@link CacheInvalidationBus}.
+ * Committed changes of cached entities are published on the bus, and invalidations coming from the
+ * other nodes evict the matching entity and the cached query results from the local regions.
+ * Registered as an {@link Integrator} (see HibernateCacheConfig), so it is hooked in whenever the session
+ * factory is built, also when the beans are initialized lazily.
+ */
+public class ItemCacheInvalidationListener implements Integrator, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final CacheInvalidationBus bus;
+
+    private CacheImplementor cache;
+    private CacheInvalidationBus.Subscription subscription;
+
+    public ItemCacheInvalidationListener(CacheInvalidationBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        cache = sessionFactory.getCache();
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+        subscription = bus.subscribe(this::evict);
+    }
+
+    //the session factory is closed before the bus bean is destroyed, the other nodes must not evict from it in between
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        if (subscription != null) {
+            bus.unsubscribe(subscription);
+            subscription = null;
+        }
+    }
+
+    private void evict(CacheInvalidationBus.Invalidation invalidation) {
+        if (invalidation.id() != null) {
+            cache.evictEntityData(invalidation.entityName(), invalidation.id());
+        }
+        //any cached query may now return a different set of rows
+        cache.evictQueryRegions();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        //a new row only changes the query results, there is nothing stale in the entity region yet
+        bus.publish(event.getPersister().getEntityName(), null);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        bus.publish(event.getPersister().getEntityName(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        bus.publish(event.getPersister().getEntityName(), event.getId());
+    }
+
+    //nothing was committed, so the other nodes don't have anything to drop
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    //only the cached entities (Item) are interesting for the other nodes
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+}
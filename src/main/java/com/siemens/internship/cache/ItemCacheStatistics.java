@@ -0,0 +1,55 @@
+package com.siemens.internship.cache;
+
+import com.siemens.internship.config.ItemCacheProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports the hit ratios of the second-level and query cache from the hibernate statistics
+ * (hibernate.generate_statistics has to be enabled).
+ */
+@Component
+public class ItemCacheStatistics {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemCacheProperties properties;
+
+    public record Counters(long hits, long misses, long puts, double hitRatio) {
+        static Counters of(long hits, long misses, long puts) {
+            long total = hits + misses;
+            return new Counters(hits, misses, puts, total == 0 ? 0.0 : (double) hits / total);
+        }
+    }
+
+    public record Snapshot(Counters secondLevel, Counters queryCache, Map<String, Counters> regions) {
+    }
+
+    public Snapshot snapshot() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Counters> regions = new LinkedHashMap<>();
+        for (String region : properties.getRegions().keySet()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.put(region, Counters.of(regionStatistics.getHitCount(),
+                        regionStatistics.getMissCount(), regionStatistics.getPutCount()));
+            }
+        }
+
+        return new Snapshot(
+                Counters.of(statistics.getSecondLevelCacheHitCount(),
+                        statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()),
+                Counters.of(statistics.getQueryCacheHitCount(),
+                        statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()),
+                regions);
+    }
+}
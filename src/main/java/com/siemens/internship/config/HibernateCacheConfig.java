@@ -0,0 +1,61 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.cache.CacheInvalidationBus;
+import com.siemens.internship.cache.ItemCacheInvalidationListener;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ItemCacheProperties.class)
+public class HibernateCacheConfig {
+
+    /**
+     * JCache manager backing the hibernate second-level and query cache.
+     * Each application instance gets its own manager (keyed by the node id of the invalidation bus),
+     * so several instances in the same jvm don't share regions and have to stay consistent through the bus.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(ItemCacheProperties properties, CacheInvalidationBus bus) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        //programmatic configuration, the uri only identifies the manager (it doesn't point to an xml file)
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:internship:hibernate:" + bus.getNodeId()), new DefaultConfiguration(getClass().getClassLoader()));
+
+        properties.getRegions().forEach((name, region) -> {
+            CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(region.getHeapEntries()))
+                    .withExpiry(region.getTtl() == null
+                            ? ExpiryPolicyBuilder.noExpiration()
+                            : ExpiryPolicyBuilder.timeToLiveExpiration(region.getTtl()));
+            cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(builder));
+        });
+        return cacheManager;
+    }
+
+    //hand the prepared manager to hibernate instead of letting it resolve the default one,
+    //and hook the invalidation listener into the session factory
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager, CacheInvalidationBus bus) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(new ItemCacheInvalidationListener(bus)));
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Eviction settings for the hibernate cache regions, bound from item.cache.regions.*
+ * Every region listed here is created up front in the jcache manager handed to hibernate.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "item.cache")
+public class ItemCacheProperties {
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        //time to live for an entry, null means the entries never expire
+        private Duration ttl;
+        //max number of entries kept on heap before the oldest ones are evicted
+        private long heapEntries = 1000;
+    }
+}
@@ -0,0 +1,14 @@
+package com.siemens.internship.config;
+
+import io.micrometer.context.integration.Slf4jThreadLocalAccessor;
+
+/**
+ * Propagates the whole MDC map. Loaded by the global ContextRegistry through
+ * META-INF/services/io.micrometer.context.ThreadLocalAccessor, which needs a public no-arg constructor
+ * (the one of {@link Slf4jThreadLocalAccessor} takes the keys as varargs).
+ */
+public class MdcThreadLocalAccessor extends Slf4jThreadLocalAccessor {
+    public MdcThreadLocalAccessor() {
+        super();
+    }
+}
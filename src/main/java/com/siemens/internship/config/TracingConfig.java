@@ -0,0 +1,33 @@
+package com.siemens.internship.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+/**
+ * Context propagation across thread hops and span export.
+ *
+ * The trace context (current observation) is propagated by micrometer out of the box; the MDC is registered
+ * as well, so log lines written on the worker threads keep the keys of the request that started the work.
+ * Its accessor, {@link MdcThreadLocalAccessor}, is listed in META-INF/services/io.micrometer.context.ThreadLocalAccessor:
+ * the global ContextRegistry loads it on first use, independent of when (or whether) this configuration is initialized.
+ */
+@Configuration
+public class TracingConfig {
+    //applied by spring boot to its task executor, used by @Async methods
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    //finished spans are written to the log; the export runs in the batch span processor, off the request threads.
+    //the property is checked at runtime and not with a condition: aot evaluates conditions at build time
+    @Bean
+    public SpanExporter loggingSpanExporter(@Value("${item.tracing.log-spans:false}") boolean logSpans) {
+        return logSpans ? LoggingSpanExporter.create() : SpanExporter.composite();
+    }
+}
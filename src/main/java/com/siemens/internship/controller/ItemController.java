@@ -1,10 +1,14 @@
 package com.siemens.internship.controller;
 
+import com.siemens.internship.cache.ItemCacheStatistics;
+import com.siemens.internship.model.IngestResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStats;
 import com.siemens.internship.service.IService;
 import com.siemens.internship.service.ItemService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -21,17 +25,38 @@ public class ItemController {
     @Autowired
     private IService itemService;
 
+    @Autowired
+    private ItemCacheStatistics cacheStatistics;
+
     @GetMapping
     public ResponseEntity<List<Item>> getAllItems() {
         return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
     }
 
+    @GetMapping(params = "status")
+    public ResponseEntity<List<Item>> getItemsByStatus(@RequestParam String status) {
+        return new ResponseEntity<>(itemService.findByStatus(status), HttpStatus.OK);
+    }
+
+    /**
+     * Creates an item. Retries are safe: a repeated Idempotency-Key returns the item of the first request,
+     * and a second item with the same email is rejected with CONFLICT, or updates the existing one with upsert=true.
+     * A key reused for a different body is rejected with UNPROCESSABLE_ENTITY.
+     */
     @PostMapping
-    public ResponseEntity<Item> createItem(@Valid @RequestBody Item item, BindingResult result) {
+    public ResponseEntity<Item> createItem(@Valid @RequestBody Item item, BindingResult result,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           @RequestParam(defaultValue = "false") boolean upsert) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST); //if it enters here means we have errors so instead of created we use bad request
         }
-        return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED); //and here we use created
+        IngestResult ingested = itemService.ingest(item, idempotencyKey, upsert);
+        return switch (ingested.outcome()) {
+            case CREATED -> new ResponseEntity<>(ingested.item(), HttpStatus.CREATED); //and here we use created
+            case UPDATED, REPLAYED -> new ResponseEntity<>(ingested.item(), HttpStatus.OK);
+            case DUPLICATE, IN_PROGRESS -> new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            case KEY_REUSED -> new ResponseEntity<>(null, HttpStatus.UNPROCESSABLE_ENTITY);
+        };
     }
 
     @GetMapping("/{id}")
@@ -46,7 +71,13 @@ public class ItemController {
         Optional<Item> existingItem = itemService.findById(id);
         if (existingItem.isPresent()) {
             item.setId(id);
-            return new ResponseEntity<>(itemService.save(item), HttpStatus.OK);
+            item.setProcessedAt(existingItem.get().getProcessedAt()); //managed by the processing, not by the client
+            try {
+                return new ResponseEntity<>(itemService.save(item), HttpStatus.OK);
+            } catch (DataIntegrityViolationException e) {
+                //the email belongs to another item (unique constraint), same as a duplicate POST
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
         } else {
             //changed accepted to not found
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -59,6 +90,16 @@ public class ItemController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<ItemStats> getStats() {
+        return new ResponseEntity<>(itemService.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCacheStatistics.Snapshot> getCacheStatistics() {
+        return new ResponseEntity<>(cacheStatistics.snapshot(), HttpStatus.OK);
+    }
+
     @GetMapping("/process")
     public ResponseEntity<List<Item>> processItems() {
         try{
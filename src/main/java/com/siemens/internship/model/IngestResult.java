@@ -0,0 +1,17 @@
+package com.siemens.internship.model;
+
+/**
+ * Result of creating an item through the deduplicating ingest path.
+ *
+ * @param item the stored item (for a duplicate, the item that already has the email), null for KEY_REUSED and IN_PROGRESS
+ */
+public record IngestResult(Item item, Outcome outcome) {
+    public enum Outcome {
+        CREATED,   //a new row was inserted
+        UPDATED,   //upsert mode, the item with the same email was updated
+        REPLAYED,  //the idempotency key was already used, the item of the first request is returned
+        DUPLICATE, //an item with the same email already exists and upsert mode is off
+        KEY_REUSED, //the idempotency key was already used for a different request body
+        IN_PROGRESS //the request that owns the idempotency key didn't finish in time
+    }
+}
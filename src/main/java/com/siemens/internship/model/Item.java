@@ -1,9 +1,14 @@
 package com.siemens.internship.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -11,15 +16,25 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.Instant;
+import java.util.Locale;
 import java.util.Objects;
 
 @Entity
+//kept in the second-level cache so findById inside the processing loop doesn't hit the db every time
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Item.CACHE_REGION)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    public static final String CACHE_REGION = "items";
+    public static final String QUERY_CACHE_REGION = "item-queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -48,5 +63,25 @@ public class Item {
             regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$",
             message = "Email format is invalid"
     )
+    @Column(unique = true)
     private String email;
+
+    //last time the item was processed (every processing is recorded in ItemProcessing); returned to clients but never read from them
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant processedAt;
+
+    public Item(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, email, null);
+    }
+
+    //emails are case insensitive, the same mailbox must not end up in two items (checked by the db too)
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        email = normalizeEmail(email);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+//one processing of an item, append only: kept when the item is processed again or deleted
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemProcessing {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+    @Column(nullable = false)
+    private Long itemId;
+    @Column(nullable = false)
+    private Instant processedAt;
+
+    public ItemProcessing(Long itemId, Instant processedAt) {
+        this(null, itemId, processedAt);
+    }
+}
@@ -0,0 +1,18 @@
+package com.siemens.internship.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Aggregates over all the items, returned by GET /api/items/stats.
+ *
+ * @param processedPerMinute number of item processings in each minute (start of the minute as key), an item processed
+ *                           in several runs counts in each of them, deleting it doesn't change its past minutes
+ * @param computedAt         when the last full computation ran, incremental updates don't change it
+ */
+public record ItemStats(long total,
+                        Map<String, Long> countsByStatus,
+                        Map<String, Long> countsByEmailDomain,
+                        Map<Instant, Long> processedPerMinute,
+                        Instant computedAt) {
+}
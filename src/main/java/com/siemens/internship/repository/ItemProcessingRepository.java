@@ -0,0 +1,23 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ItemProcessing;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface ItemProcessingRepository extends JpaRepository<ItemProcessing, Long> {
+    //cursor over the processing timestamps, has to be consumed inside a transaction and closed
+    @Query("SELECT p.processedAt FROM ItemProcessing p")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<Instant> streamProcessedAt();
+}
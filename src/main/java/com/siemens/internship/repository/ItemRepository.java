@@ -1,12 +1,54 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.Item;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    //redeclared so the query cache is used, the entities themselves come from the second-level cache
+    @Override
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Item.QUERY_CACHE_REGION)
+    })
+    List<Item> findAll();
+
     @Query("SELECT id FROM Item")
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Item.QUERY_CACHE_REGION)
+    })
     List<Long> findAllIds();
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Item.QUERY_CACHE_REGION)
+    })
+    List<Item> findByStatus(String status);
+
+    //a repeated duplicate post is answered from the query cache instead of the db
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Item.QUERY_CACHE_REGION)
+    })
+    Optional<Item> findByEmail(String email);
+
+    @Query("SELECT i.email FROM Item i")
+    List<String> findAllEmails();
+
+    //aggregates used by the statistics, grouped by the db instead of loading every item
+    @Query("SELECT i.status, COUNT(i) FROM Item i GROUP BY i.status")
+    List<Object[]> countByStatus();
+
+    @Query("SELECT LOWER(SUBSTRING(i.email, LOCATE('@', i.email) + 1)), COUNT(i) FROM Item i " +
+            "GROUP BY LOWER(SUBSTRING(i.email, LOCATE('@', i.email) + 1))")
+    List<Object[]> countByEmailDomain();
 }
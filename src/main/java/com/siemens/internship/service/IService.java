@@ -1,6 +1,8 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.model.IngestResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStats;
 
 import java.util.List;
 import java.util.Optional;
@@ -8,8 +10,11 @@ import java.util.concurrent.CompletableFuture;
 
 public interface IService {
     List<Item> findAll();
+    List<Item> findByStatus(String status);
     Optional<Item> findById(Long id);
     Item save(Item item);
+    IngestResult ingest(Item item, String idempotencyKey, boolean upsertByEmail);
     void deleteById(Long id);
+    ItemStats getStats();
     CompletableFuture<List<Item>> processItemsAsync();  // Asynchronous processing defined in the interface
 }
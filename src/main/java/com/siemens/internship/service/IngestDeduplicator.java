@@ -0,0 +1,152 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * In-memory state used to catch duplicate posts before they reach the db.
+ *
+ * Idempotency keys map to the id of the item created by the first request; the most recent keys are kept
+ * (item.ingest.idempotency-keys). A key is reserved before the insert, so concurrent retries with the same key
+ * wait for the first one instead of inserting again. The reservation also holds a hash of the request body,
+ * a key reused for a different body is not replayed.
+ * The seen emails are a superset of the emails in the table as far as this instance knows: an email that is not
+ * in the set is new and can be inserted without a lookup. Like in the table, they are normalized with
+ * {@link Item#normalizeEmail}. Rows inserted by other instances are caught by the
+ * unique constraint on the email column.
+ */
+@Component
+public class IngestDeduplicator {
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${item.ingest.idempotency-keys:10000}")
+    private int maxIdempotencyKeys;
+
+    //how long a retry waits for the request that owns its key
+    @Value("${item.ingest.idempotency-wait:10s}")
+    private Duration idempotencyWait;
+
+    /**
+     * A reserved idempotency key, completed by the owner with the id of its item.
+     *
+     * @param fingerprint hash of the body of the request that reserved the key
+     */
+    public record Reservation(String fingerprint, CompletableFuture<Long> itemId) {
+    }
+
+    /**
+     * @param owner true if the caller created the reservation and has to do the insert
+     *              (then {@link #complete} or {@link #release} it)
+     */
+    public record Claim(Reservation reservation, boolean owner) {
+    }
+
+    //guarded by itself, access order so the least recently used key is dropped first;
+    //a reservation still in flight is never dropped, the requests waiting on it would never be woken up
+    private final Map<String, Reservation> idempotencyKeys = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Reservation> eldest) {
+            return size() > maxIdempotencyKeys && eldest.getValue().itemId().isDone();
+        }
+    };
+
+    private final Set<String> seenEmails = ConcurrentHashMap.newKeySet();
+    private volatile boolean emailsLoaded;
+
+    public Claim reserve(String key, String fingerprint) {
+        synchronized (idempotencyKeys) {
+            Reservation existing = idempotencyKeys.get(key);
+            if (existing != null) {
+                return new Claim(existing, false);
+            }
+            Reservation reservation = new Reservation(fingerprint, new CompletableFuture<>());
+            idempotencyKeys.put(key, reservation);
+            return new Claim(reservation, true);
+        }
+    }
+
+    //the owner completes its own reservation, even if the key isn't in the map anymore
+    public void complete(Reservation reservation, Long id) {
+        reservation.itemId().complete(id);
+    }
+
+    //the insert failed or the item is gone, the next request with this key starts over
+    public void release(String key, Reservation reservation, Throwable cause) {
+        synchronized (idempotencyKeys) {
+            idempotencyKeys.remove(key, reservation);
+        }
+        reservation.itemId().completeExceptionally(cause);
+    }
+
+    /**
+     * Waits for the owner of the reservation, bounded by item.ingest.idempotency-wait.
+     *
+     * @throws ExecutionException if the owner released the reservation
+     */
+    public Long await(Reservation reservation) throws InterruptedException, ExecutionException, TimeoutException {
+        return reservation.itemId().get(idempotencyWait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //sha-256 over the fields of the request body
+    public static String fingerprintOf(Item item) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (Object field : new Object[]{item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail()}) {
+            //length prefixed, so the boundaries between the fields can't be shifted
+            String value = field == null ? "" : field.toString();
+            digest.update(((field == null ? -1 : value.length()) + ":" + value).getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public boolean mightContainEmail(String email) {
+        loadEmails();
+        return email != null && seenEmails.contains(Item.normalizeEmail(email));
+    }
+
+    public void rememberEmail(String email) {
+        if (email != null) {
+            seenEmails.add(Item.normalizeEmail(email));
+        }
+    }
+
+    public void forgetEmail(String email) {
+        if (email != null) {
+            seenEmails.remove(Item.normalizeEmail(email));
+        }
+    }
+
+    //the existing emails are read once, on the first ingest
+    private void loadEmails() {
+        if (!emailsLoaded) {
+            synchronized (seenEmails) {
+                if (!emailsLoaded) {
+                    seenEmails.addAll(itemRepository.findAllEmails());
+                    emailsLoaded = true;
+                }
+            }
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.model.IngestResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemProcessing;
+import com.siemens.internship.model.ItemStats;
+import com.siemens.internship.repository.ItemProcessingRepository;
 import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -17,10 +30,23 @@ import java.util.stream.Collectors;
 
 @Service
 public class ItemService implements IService{
+    private static final Logger log = LoggerFactory.getLogger(ItemService.class);
+
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private ItemProcessingRepository processingRepository;
+    @Autowired
+    private ItemStatsService statsService;
+    @Autowired
+    private IngestDeduplicator deduplicator;
+    @Autowired
+    private ObservationRegistry observationRegistry;
     //we declare thread pool as final for preventic accidental modifications
-    private static final ExecutorService executor = Executors.newFixedThreadPool(10);
+    //one pool per service instance, so shutting down one application instance doesn't kill the pool of another
+    //wrapped so every task runs with the trace context and MDC of the thread that submitted it
+    private final ExecutorService executor = ContextExecutorService.wrap(
+            Executors.newFixedThreadPool(10), ContextSnapshotFactory.builder().build());
     //thread safe for processed items
     private final List<Item> processedItems = Collections.synchronizedList(new ArrayList<>());
     //contor thread safe
@@ -31,16 +57,129 @@ public class ItemService implements IService{
         return itemRepository.findAll();
     }
 
+    public List<Item> findByStatus(String status) {
+        return itemRepository.findByStatus(status);
+    }
+
     public Optional<Item> findById(Long id) {
         return itemRepository.findById(id);
     }
 
     public Item save(Item item) {
-        return itemRepository.save(item);
+        return statsService.trackChange(() -> {
+            //previous state is needed to update the cached statistics, it usually comes from the second-level cache
+            //copied, because with open-in-view findById returns the same managed instance the save merges into
+            Item previous = item.getId() == null ? null : itemRepository.findById(item.getId()).map(ItemService::copyOf).orElse(null);
+            Item saved = itemRepository.save(item);
+            statsService.onSaved(previous, saved);
+            if (previous != null && !Objects.equals(previous.getEmail(), saved.getEmail())) {
+                deduplicator.forgetEmail(previous.getEmail());
+            }
+            deduplicator.rememberEmail(saved.getEmail());
+            return saved;
+        });
     }
 
     public void deleteById(Long id) {
-        itemRepository.deleteById(id);
+        statsService.trackChange(() -> {
+            Optional<Item> existing = itemRepository.findById(id).map(ItemService::copyOf);
+            itemRepository.deleteById(id);
+            existing.ifPresent(item -> {
+                statsService.onDeleted(item);
+                deduplicator.forgetEmail(item.getEmail());
+            });
+            return null;
+        });
+    }
+
+    //detached snapshot, not affected by later changes of the persistence context
+    private static Item copyOf(Item item) {
+        return new Item(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), item.getProcessedAt());
+    }
+
+    /**
+     * Creates an item, without creating duplicates when the client retries.
+     *
+     * @param idempotencyKey optional, a repeated key returns the item created by the first request
+     * @param upsertByEmail  if an item with the same email exists, update it instead of reporting a duplicate
+     */
+    public IngestResult ingest(Item item, String idempotencyKey, boolean upsertByEmail) {
+        //managed by the processing, not by the client (the json binding ignores it, other callers might not)
+        item.setProcessedAt(null);
+        //before the fingerprint and the lookups, a retry may differ only in the case of the email
+        item.setEmail(Item.normalizeEmail(item.getEmail()));
+        if (idempotencyKey == null) {
+            return ingestByEmail(item, upsertByEmail);
+        }
+        //taken before the item is touched, the ingest sets the id
+        String fingerprint = IngestDeduplicator.fingerprintOf(item);
+        IngestDeduplicator.Claim claim = deduplicator.reserve(idempotencyKey, fingerprint);
+        IngestDeduplicator.Reservation reservation = claim.reservation();
+        if (!claim.owner()) {
+            if (!reservation.fingerprint().equals(fingerprint)) {
+                return new IngestResult(null, IngestResult.Outcome.KEY_REUSED);
+            }
+            //retry of a request we already saw (or that is still running), wait for its item
+            Long id;
+            try {
+                id = deduplicator.await(reservation);
+            } catch (ExecutionException e) {
+                //the first request failed and released the key, so this one is handled as a new request
+                return ingest(item, idempotencyKey, upsertByEmail);
+            } catch (TimeoutException e) {
+                return new IngestResult(null, IngestResult.Outcome.IN_PROGRESS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new IngestResult(null, IngestResult.Outcome.IN_PROGRESS);
+            }
+            Optional<Item> existing = findById(id);
+            if (existing.isPresent()) {
+                return new IngestResult(existing.get(), IngestResult.Outcome.REPLAYED);
+            }
+            //the item was deleted in the meantime, handle the request as a new one
+            deduplicator.release(idempotencyKey, reservation, new IllegalStateException("Item of idempotency key was deleted"));
+            return ingest(item, idempotencyKey, upsertByEmail);
+        }
+        try {
+            IngestResult result = ingestByEmail(item, upsertByEmail);
+            if (result.outcome() == IngestResult.Outcome.DUPLICATE) {
+                deduplicator.release(idempotencyKey, reservation, new IllegalStateException("Duplicate item"));
+            } else {
+                deduplicator.complete(reservation, result.item().getId());
+            }
+            return result;
+        } catch (RuntimeException e) {
+            deduplicator.release(idempotencyKey, reservation, e); //let a later retry try again
+            throw e;
+        }
+    }
+
+    private IngestResult ingestByEmail(Item item, boolean upsertByEmail) {
+        //emails not seen before are inserted directly, without looking them up first
+        if (deduplicator.mightContainEmail(item.getEmail())) {
+            Optional<Item> existing = itemRepository.findByEmail(item.getEmail());
+            if (existing.isPresent()) {
+                return upsertByEmail ? update(existing.get(), item) : new IngestResult(existing.get(), IngestResult.Outcome.DUPLICATE);
+            }
+        }
+        try {
+            return new IngestResult(save(item), IngestResult.Outcome.CREATED);
+        } catch (DataIntegrityViolationException e) {
+            //the unique constraint caught an email this instance didn't know about (e.g. inserted by another instance)
+            Item existing = itemRepository.findByEmail(item.getEmail()).orElseThrow(() -> e);
+            deduplicator.rememberEmail(existing.getEmail());
+            return upsertByEmail ? update(existing, item) : new IngestResult(existing, IngestResult.Outcome.DUPLICATE);
+        }
+    }
+
+    private IngestResult update(Item existing, Item item) {
+        item.setId(existing.getId());
+        item.setProcessedAt(existing.getProcessedAt());
+        return new IngestResult(save(item), IngestResult.Outcome.UPDATED);
+    }
+
+    public ItemStats getStats() {
+        return statsService.getStats();
     }
 
 
@@ -83,29 +222,22 @@ public class ItemService implements IService{
         processedItems.clear();
         processedCount.set(0);
 
-        List<Long> itemIds = itemRepository.findAllIds();
-
-        List<CompletableFuture<Item>> futures = itemIds.stream()
-            .map(id -> CompletableFuture.supplyAsync(() -> {
-                try{
-                    Thread.sleep(100);
+        //parent span of the whole run, the item spans created on the executor threads are its children
+        Observation run = Observation.createNotStarted("items.process", observationRegistry).start();
+        List<CompletableFuture<Item>> futures;
+        try (Observation.Scope scope = run.openScope()) {
+            List<Long> itemIds = itemRepository.findAllIds();
 
-                    Item item = itemRepository.findById(id).orElse(null);
-                    if (item == null) {
-                        return null;
-                    }
-                    //increment the contor
-                    processedCount.incrementAndGet();
-                    //update the status
-                    item.setStatus("PROCESSED");
-                    return itemRepository.save(item);
-                } catch (InterruptedException e) { //proper error handling
-                    Thread.currentThread().interrupt();
-                    throw new CompletionException("Procesare intrerupta", e);} //proper error propagation
-                catch(Exception e){
-                    throw new CompletionException("Eroare la procesarea item-ului cu id: " + id, e); //proper error prpagation
-                }
-            }, executor)).collect(Collectors.toList());
+            futures = itemIds.stream()
+                .map(id -> CompletableFuture.supplyAsync(() -> Observation.createNotStarted("item.process", observationRegistry)
+                        .highCardinalityKeyValue("item.id", String.valueOf(id))
+                        .observe(() -> processItem(id)), executor))
+                .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            run.error(e);
+            run.stop();
+            throw e;
+        }
         //this method returned processedItems without waiting for the asyncron operations to finish
         //the errors were just caught and printed without propagation to the caller
 //        for (Long id : itemIds) {
@@ -139,6 +271,12 @@ public class ItemService implements IService{
                     processedItems.addAll(result);
                     return processedItems;
                 })
+                .whenComplete((items, ex) -> {
+                    if (ex != null) {
+                        run.error(ex);
+                    }
+                    run.stop();
+                })
                 .exceptionally(ex -> {
                     System.out.println("Error: " + ex.getMessage());
                     System.err.println("Error: " + ex.getMessage());
@@ -148,6 +286,42 @@ public class ItemService implements IService{
 
     }
 
+    //one item step, the db calls get their own spans so a slow run can be traced down to them
+    private Item processItem(Long id) {
+        //runs on the executor, the MDC (trace ids and the keys of the caller) comes with the task
+        log.debug("Processing item {}", id);
+        try{
+            Thread.sleep(100);
+
+            Item item = Observation.createNotStarted("item.load", observationRegistry)
+                    .observe(() -> itemRepository.findById(id).orElse(null));
+            if (item == null) {
+                return null;
+            }
+            //increment the contor
+            processedCount.incrementAndGet();
+            //update the status
+            item.setStatus("PROCESSED");
+            item.setProcessedAt(Instant.now());
+            return Observation.createNotStarted("item.save", observationRegistry).observe(() -> saveProcessed(item));
+        } catch (InterruptedException e) { //proper error handling
+            Thread.currentThread().interrupt();
+            throw new CompletionException("Procesare intrerupta", e);} //proper error propagation
+        catch(Exception e){
+            throw new CompletionException("Eroare la procesarea item-ului cu id: " + id, e); //proper error prpagation
+        }
+    }
+
+    //through save so the statistics are updated too, the processing itself is recorded for the throughput
+    private Item saveProcessed(Item item) {
+        return statsService.trackChange(() -> {
+            Item saved = save(item);
+            processingRepository.save(new ItemProcessing(saved.getId(), saved.getProcessedAt()));
+            statsService.onProcessed(saved.getProcessedAt());
+            return saved;
+        });
+    }
+
     //for closing correctly the executor
     @PreDestroy
     public void destroy() {
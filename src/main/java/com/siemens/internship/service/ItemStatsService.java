@@ -0,0 +1,303 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStats;
+import com.siemens.internship.repository.ItemProcessingRepository;
+import com.siemens.internship.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Server side statistics over the items.
+ *
+ * The counts by status and by email domain are grouped by the db, the processing throughput is reduced
+ * from a cursor over the recorded processings, chunk by chunk with a parallel stream.
+ * The result is cached for a short ttl and kept up to date incrementally by the save and delete paths
+ * of {@link ItemService}, so polling dashboards don't trigger a full scan on every request.
+ */
+@Service
+public class ItemStatsService {
+    //key used for items without a status or an email
+    public static final String UNKNOWN = "UNKNOWN";
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemProcessingRepository processingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${item.stats.ttl:30s}")
+    private Duration ttl;
+
+    //all the state is guarded by this, so incremental updates can't interleave with installing a full computation
+    private long total;
+    private final Map<String, Long> countsByStatus = new HashMap<>();
+    private final Map<String, Long> countsByEmailDomain = new HashMap<>();
+    private final Map<Instant, Long> processedPerMinute = new TreeMap<>();
+    private Instant computedAt;
+    //last time a full computation was tried, the ttl counts from here
+    private Instant checkedAt;
+    //every change counts up when it starts, a full computation is only installed if no change started
+    //(or was still running) while the db was read: such a change may or may not be in what was read,
+    //so its delta could be missing or counted twice
+    private long changesStarted;
+    private int changesRunning;
+
+    //one full computation at a time
+    private final ReentrantLock recomputeLock = new ReentrantLock();
+    //only for the first computation (nothing cached yet): changes hold the read lock from before their db write
+    //until their delta is applied, the computation holds the write lock so no change can overlap it
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+
+    //result of reading the db, built outside of any lock
+    private record Aggregates(long total, Map<String, Long> countsByStatus, Map<String, Long> countsByEmailDomain,
+                              Map<Instant, Long> processedPerMinute) {
+    }
+
+    /**
+     * The cached statistics, recomputed when they are older than the ttl.
+     *
+     * The db is read without blocking the write paths. If changes ran in the meantime the result is dropped:
+     * the cached numbers already contain those changes through their deltas, the next request after the ttl tries again.
+     */
+    public ItemStats getStats() {
+        synchronized (this) {
+            if (!isStale()) {
+                return snapshot();
+            }
+        }
+        if (!recomputeLock.tryLock()) {
+            //another request is already computing, the cached numbers are up to date through the deltas
+            synchronized (this) {
+                if (computedAt != null) {
+                    return snapshot();
+                }
+            }
+            recomputeLock.lock();
+        }
+        try {
+            synchronized (this) {
+                if (!isStale()) {
+                    return snapshot();
+                }
+            }
+            if (!tryRecompute() && !hasResult()) {
+                recomputeExclusively();
+            }
+            synchronized (this) {
+                return snapshot();
+            }
+        } finally {
+            recomputeLock.unlock();
+        }
+    }
+
+    private boolean tryRecompute() {
+        long startedBefore;
+        synchronized (this) {
+            if (changesRunning > 0) {
+                checkedAt = Instant.now();
+                return false;
+            }
+            startedBefore = changesStarted;
+        }
+        Aggregates aggregates = aggregate();
+        synchronized (this) {
+            checkedAt = Instant.now();
+            if (changesStarted != startedBefore) {
+                return false;
+            }
+            install(aggregates);
+            return true;
+        }
+    }
+
+    //blocks the changes, only used when there's nothing cached that their deltas could keep up to date
+    private void recomputeExclusively() {
+        //the lock is taken outside the monitor, changes take them in the opposite order
+        changeLock.writeLock().lock();
+        try {
+            Aggregates aggregates = aggregate();
+            synchronized (this) {
+                checkedAt = Instant.now();
+                install(aggregates);
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    private synchronized boolean hasResult() {
+        return computedAt != null;
+    }
+
+    /**
+     * Runs a db write together with its {@link #onSaved}/{@link #onDeleted} call,
+     * so a full computation overlapping it is not installed.
+     */
+    public <T> T trackChange(Supplier<T> change) {
+        changeLock.readLock().lock();
+        try {
+            synchronized (this) {
+                changesStarted++;
+                changesRunning++;
+            }
+            try {
+                return change.get();
+            } finally {
+                synchronized (this) {
+                    changesRunning--;
+                }
+            }
+        } finally {
+            changeLock.readLock().unlock();
+        }
+    }
+
+    private boolean isStale() {
+        return checkedAt == null || checkedAt.plus(ttl).isBefore(Instant.now());
+    }
+
+    private ItemStats snapshot() {
+        return new ItemStats(total, Map.copyOf(countsByStatus), Map.copyOf(countsByEmailDomain),
+                new TreeMap<>(processedPerMinute), computedAt);
+    }
+
+    //forces a full computation on the next request, e.g. after bulk changes that bypass the service
+    public synchronized void invalidate() {
+        computedAt = null;
+        checkedAt = null;
+        changesStarted++; //a computation already reading the db may have missed the bulk change
+    }
+
+    /**
+     * Applies a saved item to the cached statistics, has to be called inside {@link #trackChange}.
+     *
+     * @param previous the state of the item before saving (a detached copy), null if it's a new item
+     */
+    public synchronized void onSaved(Item previous, Item saved) {
+        if (computedAt == null) {
+            return; //nothing cached, the next request computes everything anyway
+        }
+        if (previous != null) {
+            remove(previous);
+        }
+        add(saved);
+    }
+
+    public synchronized void onDeleted(Item deleted) {
+        if (computedAt == null) {
+            return;
+        }
+        remove(deleted);
+    }
+
+    //a recorded processing, has to be called inside trackChange too
+    public synchronized void onProcessed(Instant processedAt) {
+        if (computedAt == null) {
+            return;
+        }
+        processedPerMinute.merge(minuteOf(processedAt), 1L, Long::sum);
+    }
+
+    private void add(Item item) {
+        total++;
+        countsByStatus.merge(statusOf(item), 1L, Long::sum);
+        countsByEmailDomain.merge(emailDomainOf(item), 1L, Long::sum);
+    }
+
+    private void remove(Item item) {
+        total--;
+        decrement(countsByStatus, statusOf(item));
+        decrement(countsByEmailDomain, emailDomainOf(item));
+    }
+
+    //drops the key when the count reaches 0, same as a group by would
+    private static <K> void decrement(Map<K, Long> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Aggregates aggregate() {
+        long total = 0;
+        Map<String, Long> countsByStatus = new HashMap<>();
+        Map<String, Long> countsByEmailDomain = new HashMap<>();
+        Map<Instant, Long> processedPerMinute = new TreeMap<>();
+
+        for (Object[] row : itemRepository.countByStatus()) {
+            countsByStatus.merge(row[0] == null ? UNKNOWN : (String) row[0], (Long) row[1], Long::sum);
+            total += (Long) row[1];
+        }
+        for (Object[] row : itemRepository.countByEmailDomain()) {
+            countsByEmailDomain.merge(row[0] == null ? UNKNOWN : (String) row[0], (Long) row[1], Long::sum);
+        }
+        //the stream query needs an open transaction for the whole time the cursor is read
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Instant> timestamps = processingRepository.streamProcessedAt()) {
+                reduceInChunks(timestamps.iterator(), processedPerMinute);
+            }
+        });
+        return new Aggregates(total, countsByStatus, countsByEmailDomain, processedPerMinute);
+    }
+
+    private void install(Aggregates aggregates) {
+        total = aggregates.total();
+        countsByStatus.clear();
+        countsByStatus.putAll(aggregates.countsByStatus());
+        countsByEmailDomain.clear();
+        countsByEmailDomain.putAll(aggregates.countsByEmailDomain());
+        processedPerMinute.clear();
+        processedPerMinute.putAll(aggregates.processedPerMinute());
+        computedAt = Instant.now();
+    }
+
+    //only one chunk is kept in memory, each chunk is grouped in parallel and merged into the result
+    private static void reduceInChunks(Iterator<Instant> timestamps, Map<Instant, Long> processedPerMinute) {
+        List<Instant> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (timestamps.hasNext()) {
+            chunk.add(timestamps.next());
+            if (chunk.size() == CHUNK_SIZE || !timestamps.hasNext()) {
+                ConcurrentMap<Instant, Long> counts = chunk.parallelStream()
+                        .collect(Collectors.groupingByConcurrent(ItemStatsService::minuteOf, Collectors.counting()));
+                counts.forEach((minute, count) -> processedPerMinute.merge(minute, count, Long::sum));
+                chunk.clear();
+            }
+        }
+    }
+
+    private static String statusOf(Item item) {
+        return item.getStatus() == null ? UNKNOWN : item.getStatus();
+    }
+
+    //same expression as the group by in ItemRepository.countByEmailDomain
+    private static String emailDomainOf(Item item) {
+        String email = item.getEmail();
+        return email == null ? UNKNOWN : email.substring(email.indexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static Instant minuteOf(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.MINUTES);
+    }
+}
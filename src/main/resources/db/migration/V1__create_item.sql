@@ -0,0 +1,11 @@
+create sequence item_seq start with 1 increment by 50;
+
+create table item (
+    id bigint not null,
+    name varchar(255),
+    description varchar(255),
+    status varchar(255),
+    email varchar(255),
+    processed_at timestamp(6) with time zone,
+    primary key (id)
+);
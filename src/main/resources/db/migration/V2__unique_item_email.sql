@@ -0,0 +1,2 @@
+-- final safeguard against duplicate items, the ingest path deduplicates before it gets here
+alter table item add constraint uk_item_email unique (email);
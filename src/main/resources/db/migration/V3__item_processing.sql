@@ -0,0 +1,9 @@
+-- one row per processed item and run, the throughput statistics are computed from it
+create sequence item_processing_seq start with 1 increment by 50;
+
+create table item_processing (
+    id bigint not null,
+    item_id bigint not null,
+    processed_at timestamp(6) with time zone not null,
+    primary key (id)
+);
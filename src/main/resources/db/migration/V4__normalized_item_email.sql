@@ -0,0 +1,3 @@
+-- emails are compared case insensitively, they are stored lower case so the unique constraint covers that too
+update item set email = lower(email);
+alter table item add constraint ck_item_email_lower check (email = lower(email));
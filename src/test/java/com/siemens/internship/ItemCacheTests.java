@@ -0,0 +1,119 @@
+package com.siemens.internship;
+
+import com.siemens.internship.cache.CacheInvalidationBus;
+import com.siemens.internship.cache.ItemCacheStatistics;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ItemCacheTests {
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemCacheStatistics cacheStatistics;
+
+    @BeforeEach
+    void cleanDatabase() {
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void testFindByIdUsesSecondLevelCache() {
+        Item item = itemRepository.save(new Item(null, "Cached", "Cached item", "NEW", "cached@example.com"));
+
+        //first read may go to the db, the next ones should be served from the cache
+        itemService.findById(item.getId());
+        long hitsBefore = cacheStatistics.snapshot().regions().get(Item.CACHE_REGION).hits();
+        itemService.findById(item.getId());
+        itemService.findById(item.getId());
+        long hitsAfter = cacheStatistics.snapshot().regions().get(Item.CACHE_REGION).hits();
+
+        assertEquals(hitsBefore + 2, hitsAfter, "Repeated findById calls should hit the second-level cache");
+    }
+
+    @Test
+    void testFindAllIdsUsesQueryCache() {
+        itemRepository.save(new Item(null, "Query", "Query cache item", "NEW", "query@example.com"));
+
+        itemRepository.findAllIds();
+        long hitsBefore = cacheStatistics.snapshot().queryCache().hits();
+        itemRepository.findAllIds();
+        long hitsAfter = cacheStatistics.snapshot().queryCache().hits();
+
+        assertEquals(hitsBefore + 1, hitsAfter, "The second findAllIds call should hit the query cache");
+        assertTrue(cacheStatistics.snapshot().queryCache().hitRatio() > 0, "Hit ratio should be reported");
+    }
+
+    @Test
+    void testQueryCacheInvalidatedOnSave() {
+        Item item = itemRepository.save(new Item(null, "Filter", "Filter item", "NEW", "filter@example.com"));
+        assertEquals(1, itemService.findByStatus("NEW").size(), "The item should be found by status");
+
+        //updating the item has to drop the cached query result
+        item.setStatus("PROCESSED");
+        itemService.save(item);
+
+        assertTrue(itemService.findByStatus("NEW").isEmpty(), "The cached query result should be invalidated");
+        assertEquals(1, itemService.findByStatus("PROCESSED").size(), "The updated item should be found by its new status");
+    }
+
+    @Test
+    void testInstancesStayConsistent() {
+        Item item = itemRepository.save(new Item(null, "Shared", "Shared item", "NEW", "shared@example.com"));
+        //warm up the caches of this instance
+        assertEquals("NEW", itemService.findById(item.getId()).get().getStatus());
+        assertEquals(1, itemService.findByStatus("NEW").size());
+
+        //a second instance on the same in-memory database, with its own cache
+        try (ConfigurableApplicationContext other = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run()) {
+            ItemService otherService = other.getBean(ItemService.class);
+            Item otherItem = otherService.findById(item.getId()).get();
+            otherItem.setStatus("UPDATED");
+            otherService.save(otherItem);
+        }
+
+        //the change of the other instance should not be hidden by the local cache
+        assertEquals("UPDATED", itemService.findById(item.getId()).get().getStatus(), "Cached entity should be invalidated by the other instance");
+        assertTrue(itemService.findByStatus("NEW").isEmpty(), "Cached query should be invalidated by the other instance");
+    }
+
+    //the bus bean outlives the session factory during shutdown, the subscription has to go with the session factory
+    @Test
+    void testSubscriptionRemovedWithSessionFactory() {
+        List<?> subscriptions = (List<?>) ReflectionTestUtils.getField(CacheInvalidationBus.class, "SUBSCRIPTIONS");
+        int before = subscriptions.size();
+
+        try (ConfigurableApplicationContext other = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run()) {
+            assertEquals(before + 1, subscriptions.size(), "The other instance should be subscribed");
+
+            other.getBean(EntityManagerFactory.class).close();
+            assertEquals(before, subscriptions.size(), "Closing the session factory should unsubscribe it");
+
+            //publishing from this instance must not reach the closed session factory
+            itemRepository.save(new Item(null, "After close", "After close", "NEW", "after-close@example.com"));
+        }
+        assertEquals(before, subscriptions.size());
+    }
+}
@@ -61,7 +61,7 @@ public class ItemControllerTests {
         when(bindingResult.hasErrors()).thenReturn(false);
 
         //call the controller to create the item
-        ResponseEntity<Item> response = itemController.createItem(newItem, bindingResult);
+        ResponseEntity<Item> response = itemController.createItem(newItem, bindingResult, null, false);
 
         //check that the status is CREATED
         assertEquals(HttpStatus.CREATED, response.getStatusCode(), "The status should be CREATED");
@@ -86,7 +86,7 @@ public class ItemControllerTests {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         //call the controller to create the item
-        ResponseEntity<Item> response = itemController.createItem(item, bindingResult);
+        ResponseEntity<Item> response = itemController.createItem(item, bindingResult, null, false);
 
         //check if the status is BAD_REQUEST
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode(), "The status should be BAD_REQUEST for invalid input");
@@ -0,0 +1,204 @@
+package com.siemens.internship;
+
+import com.siemens.internship.controller.ItemController;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.IngestDeduplicator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BindingResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ItemIngestTests {
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemController itemController;
+
+    @Autowired
+    private IngestDeduplicator deduplicator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BindingResult bindingResult;
+
+    @BeforeEach
+    void setup() {
+        itemRepository.deleteAll();
+        //mock a BindingResult with no errors
+        bindingResult = mock(BindingResult.class);
+        when(bindingResult.hasErrors()).thenReturn(false);
+    }
+
+    private ResponseEntity<Item> post(Item item, String idempotencyKey, boolean upsert) {
+        return itemController.createItem(item, bindingResult, idempotencyKey, upsert);
+    }
+
+    @Test
+    void testRetryWithIdempotencyKey() {
+        ResponseEntity<Item> first = post(new Item(null, "Retry", "First try", "NEW", "retry@example.com"), "key-1", false);
+        ResponseEntity<Item> retry = post(new Item(null, "Retry", "First try", "NEW", "retry@example.com"), "key-1", false);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode(), "The first request should create the item");
+        assertEquals(HttpStatus.OK, retry.getStatusCode(), "The retry should return the existing item");
+        assertEquals(first.getBody().getId(), retry.getBody().getId(), "The retry should return the item of the first request");
+        assertEquals(1, itemRepository.count(), "The retry should not insert another row");
+    }
+
+    @Test
+    void testDuplicateEmailRejected() {
+        post(new Item(null, "Original", "Original", "NEW", "dup@example.com"), null, false);
+        ResponseEntity<Item> duplicate = post(new Item(null, "Duplicate", "Duplicate", "NEW", "dup@example.com"), null, false);
+
+        assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode(), "A second item with the same email should be rejected");
+        assertNull(duplicate.getBody(), "The response body should be null for a duplicate");
+        assertEquals(1, itemRepository.count(), "The duplicate should not be inserted");
+    }
+
+    @Test
+    void testUpsertByEmail() {
+        Item original = post(new Item(null, "Original", "Original", "NEW", "upsert@example.com"), null, false).getBody();
+        ResponseEntity<Item> upserted = post(new Item(null, "Upserted", "Upserted", "NEW", "upsert@example.com"), null, true);
+
+        assertEquals(HttpStatus.OK, upserted.getStatusCode(), "Upsert should update the existing item");
+        assertEquals(original.getId(), upserted.getBody().getId(), "Upsert should keep the id of the existing item");
+        assertEquals("Upserted", itemRepository.findById(original.getId()).get().getName(), "Upsert should update the stored item");
+        assertEquals(1, itemRepository.count(), "Upsert should not insert another row");
+    }
+
+    @Test
+    void testUniqueConstraintIsFinalSafeguard() {
+        //make sure the seen emails are loaded, then insert behind the back of the ingest path
+        post(new Item(null, "Other", "Other", "NEW", "other@example.com"), null, false);
+        itemRepository.save(new Item(null, "Direct", "Inserted directly", "NEW", "direct@example.com"));
+
+        ResponseEntity<Item> duplicate = post(new Item(null, "Duplicate", "Duplicate", "NEW", "direct@example.com"), null, false);
+        assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode(), "The unique constraint should catch the unknown duplicate");
+        assertEquals(2, itemRepository.count(), "The duplicate should not be inserted");
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> itemRepository.save(new Item(null, "Direct2", "Inserted directly", "NEW", "direct@example.com")),
+                "The db should reject duplicate emails");
+    }
+
+    @Test
+    void testConcurrentRetriesWithSameKey() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<ResponseEntity<Item>>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(CompletableFuture.supplyAsync(
+                        () -> post(new Item(null, "Concurrent", "Concurrent retry", "NEW", "concurrent@example.com"), "key-concurrent", false),
+                        pool));
+            }
+            Long id = null;
+            for (CompletableFuture<ResponseEntity<Item>> response : responses) {
+                Item item = response.get(10, TimeUnit.SECONDS).getBody();
+                assertNotNull(item, "Every retry should get the item");
+                if (id == null) {
+                    id = item.getId();
+                }
+                assertEquals(id, item.getId(), "Every retry should get the same item");
+            }
+            assertEquals(1, itemRepository.count(), "Concurrent retries should insert a single row");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUpdateWithEmailOfAnotherItem() {
+        Item first = post(new Item(null, "First", "First", "NEW", "first@example.com"), null, false).getBody();
+        post(new Item(null, "Second", "Second", "NEW", "second@example.com"), null, false);
+
+        ResponseEntity<Item> response = itemController.updateItem(first.getId(), new Item(null, "First", "First", "NEW", "second@example.com"));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode(), "Taking the email of another item should be rejected");
+        assertEquals("first@example.com", itemRepository.findById(first.getId()).get().getEmail(), "The item should not be changed");
+    }
+
+    @Test
+    void testEmailIsCaseInsensitive() {
+        ResponseEntity<Item> first = post(new Item(null, "Mixed", "Mixed", "NEW", "Y@a.com"), null, false);
+        ResponseEntity<Item> second = post(new Item(null, "Other case", "Other case", "NEW", "y@A.com"), null, false);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertEquals("y@a.com", first.getBody().getEmail(), "The email should be stored normalized");
+        assertEquals(HttpStatus.CONFLICT, second.getStatusCode(), "The same email in another case should be a duplicate");
+        assertEquals(1, itemRepository.count(), "Only one item should exist for the mailbox");
+
+        //writes that bypass the ingest path are normalized too, so the unique constraint catches them
+        assertThrows(DataIntegrityViolationException.class,
+                () -> itemRepository.save(new Item(null, "Direct", "Direct", "NEW", "Y@A.COM")));
+        //and the db only accepts normalized emails
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("insert into item (id, name, email) values (-1, 'Raw', 'Y@A.COM')"));
+    }
+
+    @Test
+    void testIdempotencyKeyReusedForDifferentBody() {
+        post(new Item(null, "Original", "Original", "NEW", "reused@example.com"), "key-reused", false);
+        ResponseEntity<Item> reused = post(new Item(null, "Other", "Other", "NEW", "other-body@example.com"), "key-reused", false);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode(), "A key reused for a different body should be rejected");
+        assertNull(reused.getBody(), "The response body should be null for a reused key");
+        assertEquals(1, itemRepository.count(), "The second body should not be inserted");
+    }
+
+    @Test
+    void testInFlightReservationIsNotEvicted() throws Exception {
+        int capacity = (int) ReflectionTestUtils.getField(deduplicator, "maxIdempotencyKeys");
+        ReflectionTestUtils.setField(deduplicator, "maxIdempotencyKeys", 1);
+        try {
+            IngestDeduplicator.Claim inFlight = deduplicator.reserve("key-in-flight", "fingerprint");
+            //more keys than the capacity while the first one is still running
+            for (int i = 0; i < 3; i++) {
+                IngestDeduplicator.Claim other = deduplicator.reserve("key-other-" + i, "fingerprint");
+                deduplicator.complete(other.reservation(), (long) i);
+            }
+
+            IngestDeduplicator.Claim retry = deduplicator.reserve("key-in-flight", "fingerprint");
+            assertFalse(retry.owner(), "The in-flight reservation should still be there");
+            deduplicator.complete(inFlight.reservation(), 42L);
+            assertEquals(42L, deduplicator.await(retry.reservation()), "The retry should get the id from the owner");
+        } finally {
+            ReflectionTestUtils.setField(deduplicator, "maxIdempotencyKeys", capacity);
+        }
+    }
+
+    @Test
+    void testRetryWaitIsBounded() {
+        Item item = new Item(null, "Slow", "Slow", "NEW", "slow@example.com");
+        //the owner of the key never finishes
+        IngestDeduplicator.Claim owner = deduplicator.reserve("key-slow", IngestDeduplicator.fingerprintOf(item));
+        Duration wait = (Duration) ReflectionTestUtils.getField(deduplicator, "idempotencyWait");
+        ReflectionTestUtils.setField(deduplicator, "idempotencyWait", Duration.ofMillis(100));
+        try {
+            ResponseEntity<Item> retry = post(item, "key-slow", false);
+            assertEquals(HttpStatus.CONFLICT, retry.getStatusCode(), "The retry should give up instead of blocking");
+        } finally {
+            ReflectionTestUtils.setField(deduplicator, "idempotencyWait", wait);
+            deduplicator.release("key-slow", owner.reservation(), new IllegalStateException("Test finished"));
+        }
+    }
+}
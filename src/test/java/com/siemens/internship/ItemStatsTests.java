@@ -0,0 +1,245 @@
+package com.siemens.internship;
+
+import com.siemens.internship.controller.ItemController;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStats;
+import com.siemens.internship.repository.ItemProcessingRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ItemStatsTests {
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemStatsService statsService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemProcessingRepository processingRepository;
+
+    @Autowired
+    private ItemController itemController;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        itemRepository.deleteAll();
+        processingRepository.deleteAll();
+        //deleteAll bypasses the service, so the cached statistics have to be dropped
+        statsService.invalidate();
+        itemRepository.save(new Item(null, "Item1", "D1", "NEW", "a@example.com"));
+        itemRepository.save(new Item(null, "Item2", "D2", "NEW", "b@Example.com"));
+        itemRepository.save(new Item(null, "Item3", "D3", "DONE", "c@other.org"));
+    }
+
+    @Test
+    void testGetStats() {
+        ResponseEntity<ItemStats> response = itemController.getStats();
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "The status should be OK");
+
+        ItemStats stats = response.getBody();
+        assertNotNull(stats, "The response body should not be null");
+        assertEquals(3, stats.total(), "All items should be counted");
+        assertEquals(2L, stats.countsByStatus().get("NEW"), "Items should be counted by status");
+        assertEquals(1L, stats.countsByStatus().get("DONE"), "Items should be counted by status");
+        assertEquals(2L, stats.countsByEmailDomain().get("example.com"), "Email domains should be case insensitive");
+        assertEquals(1L, stats.countsByEmailDomain().get("other.org"), "Items should be counted by email domain");
+        assertTrue(stats.processedPerMinute().isEmpty(), "Nothing was processed yet");
+    }
+
+    @Test
+    void testStatsUpdatedIncrementally() {
+        ItemStats before = itemService.getStats();
+
+        Item created = itemService.save(new Item(null, "Item4", "D4", "NEW", "d@new.net"));
+        created.setStatus("DONE");
+        itemService.save(created);
+        Item toDelete = itemRepository.findAll().stream().filter(item -> "Item1".equals(item.getName())).findFirst().get();
+        itemService.deleteById(toDelete.getId());
+
+        ItemStats after = itemService.getStats();
+        assertEquals(before.computedAt(), after.computedAt(), "The statistics should be updated without a full computation");
+        assertEquals(3, after.total(), "One item was added and one deleted");
+        assertEquals(1L, after.countsByStatus().get("NEW"), "Updated and deleted items should be removed from their status");
+        assertEquals(2L, after.countsByStatus().get("DONE"), "Updated item should be counted by its new status");
+        assertEquals(1L, after.countsByEmailDomain().get("example.com"), "Deleted item should be removed from its domain");
+        assertEquals(1L, after.countsByEmailDomain().get("new.net"), "New item should be counted by its domain");
+
+        //the incremental result has to match a full computation
+        statsService.invalidate();
+        ItemStats recomputed = itemService.getStats();
+        assertEquals(recomputed.total(), after.total());
+        assertEquals(recomputed.countsByStatus(), after.countsByStatus());
+        assertEquals(recomputed.countsByEmailDomain(), after.countsByEmailDomain());
+    }
+
+    @Test
+    void testProcessingThroughput() throws Exception {
+        itemService.getStats();
+        itemService.processItemsAsync().get(10, TimeUnit.SECONDS);
+
+        ItemStats stats = itemService.getStats();
+        assertEquals(3L, stats.countsByStatus().get("PROCESSED"), "Processed items should be counted by status");
+        assertEquals(3L, stats.processedPerMinute().values().stream().mapToLong(Long::longValue).sum(), "Every processed item should be in the throughput");
+
+        statsService.invalidate();
+        assertEquals(stats.processedPerMinute(), itemService.getStats().processedPerMinute(), "The incremental throughput should match a full computation");
+    }
+
+    //every run counts, a later run or a delete doesn't rewrite the earlier ones
+    @Test
+    void testThroughputKeepsEarlierRuns() throws Exception {
+        itemService.getStats();
+        itemService.processItemsAsync().get(10, TimeUnit.SECONDS);
+        itemService.processItemsAsync().get(10, TimeUnit.SECONDS);
+        itemService.deleteById(itemRepository.findAll().get(0).getId());
+
+        ItemStats stats = itemService.getStats();
+        assertEquals(6L, stats.processedPerMinute().values().stream().mapToLong(Long::longValue).sum(), "Both runs should be in the throughput");
+
+        statsService.invalidate();
+        assertEquals(stats.processedPerMinute(), itemService.getStats().processedPerMinute(), "The incremental throughput should match a full computation");
+    }
+
+    //over http open-in-view is on, so the previous state and the saved item are the same managed instance
+    @Test
+    void testStatsUpdatedOverHttp() throws Exception {
+        itemService.getStats();
+        Item item = itemRepository.findAll().stream().filter(i -> "Item1".equals(i.getName())).findFirst().get();
+
+        mockMvc.perform(put("/api/items/" + item.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Item1\",\"description\":\"D1\",\"status\":\"DONE\",\"email\":\"a@moved.com\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/items").param("upsert", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Item2\",\"description\":\"D2\",\"status\":\"UPSERTED\",\"email\":\"b@Example.com\"}"))
+                .andExpect(status().isOk());
+
+        ItemStats after = itemService.getStats();
+        assertEquals(3, after.total(), "Updates should not change the number of items");
+        assertEquals(Map.of("DONE", 2L, "UPSERTED", 1L), after.countsByStatus(), "Updated items should only be counted by their new status");
+        assertEquals(Map.of("moved.com", 1L, "example.com", 1L, "other.org", 1L), after.countsByEmailDomain(), "Updated items should only be counted by their new domain");
+
+        statsService.invalidate();
+        ItemStats recomputed = itemService.getStats();
+        assertEquals(recomputed.countsByStatus(), after.countsByStatus());
+        assertEquals(recomputed.countsByEmailDomain(), after.countsByEmailDomain());
+    }
+
+    //only the processing sets the timestamp, a client can't fake throughput
+    @Test
+    void testProcessedAtIgnoredInRequestBody() throws Exception {
+        itemService.getStats();
+
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Item4\",\"description\":\"D4\",\"status\":\"NEW\",\"email\":\"d@new.net\",\"processedAt\":\"2020-01-01T00:00:00Z\"}"))
+                .andExpect(status().isCreated());
+
+        Item created = itemRepository.findAll().stream().filter(i -> "Item4".equals(i.getName())).findFirst().get();
+        assertNull(created.getProcessedAt(), "The processing timestamp should not be taken from the request");
+        assertTrue(itemService.getStats().processedPerMinute().isEmpty(), "A created item should not count as processed");
+        statsService.invalidate();
+        assertTrue(itemService.getStats().processedPerMinute().isEmpty(), "A created item should not count as processed");
+    }
+
+    @Test
+    void testRecomputeDuringProcessing() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            itemRepository.save(new Item(null, "Busy" + i, "Busy", "NEW", "busy" + i + "@example.com"));
+        }
+        statsService.invalidate();
+        itemService.getStats();
+
+        //a dashboard polling without a ttl while the processing loop applies its deltas
+        Duration ttl = (Duration) ReflectionTestUtils.getField(statsService, "ttl");
+        ReflectionTestUtils.setField(statsService, "ttl", Duration.ZERO);
+        try {
+            CompletableFuture<List<Item>> processing = itemService.processItemsAsync();
+            while (!processing.isDone()) {
+                itemService.getStats();
+            }
+            processing.get(10, TimeUnit.SECONDS);
+        } finally {
+            ReflectionTestUtils.setField(statsService, "ttl", ttl);
+        }
+
+        ItemStats incremental = itemService.getStats();
+        statsService.invalidate();
+        ItemStats recomputed = itemService.getStats();
+        assertEquals(recomputed.countsByStatus(), incremental.countsByStatus(), "Deltas already in a full computation should not be applied again");
+        assertEquals(recomputed.processedPerMinute(), incremental.processedPerMinute(), "Deltas already in a full computation should not be applied again");
+    }
+
+    //a dashboard request must not stall the write paths for the duration of the scan
+    @Test
+    void testWritesDoNotWaitForRecompute() throws Exception {
+        itemService.getStats();
+
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch finishScan = new CountDownLatch(1);
+        ItemProcessingRepository slowRepository = mock(ItemProcessingRepository.class, delegatesTo(processingRepository));
+        doAnswer(invocation -> {
+            scanning.countDown();
+            finishScan.await(10, TimeUnit.SECONDS);
+            return processingRepository.streamProcessedAt();
+        }).when(slowRepository).streamProcessedAt();
+        Duration ttl = (Duration) ReflectionTestUtils.getField(statsService, "ttl");
+        ReflectionTestUtils.setField(statsService, "processingRepository", slowRepository);
+        ReflectionTestUtils.setField(statsService, "ttl", Duration.ZERO);
+        try {
+            CompletableFuture<ItemStats> polling = CompletableFuture.supplyAsync(itemService::getStats);
+            assertTrue(scanning.await(10, TimeUnit.SECONDS), "The full computation should have started");
+
+            CompletableFuture<Item> write = CompletableFuture.supplyAsync(() -> itemService.save(new Item(null, "Item4", "D4", "NEW", "d@new.net")));
+            write.get(5, TimeUnit.SECONDS);
+            assertFalse(polling.isDone(), "The write should have completed while the db was still being read");
+
+            finishScan.countDown();
+            ItemStats stats = polling.get(10, TimeUnit.SECONDS);
+            assertEquals(4, stats.total(), "A computation overlapping a change should not replace the incremental result");
+            assertEquals(1L, stats.countsByEmailDomain().get("new.net"), "The delta of the overlapping change should be kept");
+        } finally {
+            finishScan.countDown();
+            ReflectionTestUtils.setField(statsService, "processingRepository", processingRepository);
+            ReflectionTestUtils.setField(statsService, "ttl", ttl);
+        }
+
+        statsService.invalidate();
+        assertEquals(4, itemService.getStats().total(), "The incremental result should match a full computation");
+    }
+}
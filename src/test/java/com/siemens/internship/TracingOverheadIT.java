@@ -0,0 +1,57 @@
+package com.siemens.internship;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cost of the spans of one item step with every request sampled, against the same code without tracing.
+ * A wall clock bound, so it's not part of the unit tests: run by failsafe in the fast-startup maven profile
+ * (./mvnw -Pfast-startup verify) next to StartupTimeIT, the bound can be changed with -Dtracing.max-overhead-us.
+ */
+@Tag("performance")
+@SpringBootTest(properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureObservability(metrics = false)
+public class TracingOverheadIT {
+    //measured 80-110us on a single cpu
+    private static final double MAX_OVERHEAD_MICROS = Double.parseDouble(System.getProperty("tracing.max-overhead-us", "200"));
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Test
+    void testTracingOverhead() {
+        int iterations = 2_000;
+        //best of several rounds, so a gc pause or a busy machine in one round doesn't count
+        long untraced = Long.MAX_VALUE;
+        long traced = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            untraced = Math.min(untraced, measure(ObservationRegistry.NOOP, iterations));
+            traced = Math.min(traced, measure(observationRegistry, iterations));
+        }
+        double overheadMicros = (traced - untraced) / 1000.0 / iterations;
+
+        System.out.println("Tracing overhead per item step (3 spans): " + overheadMicros + "us");
+        assertTrue(overheadMicros < MAX_OVERHEAD_MICROS, "Tracing overhead per item step should stay under " + MAX_OVERHEAD_MICROS + "us");
+    }
+
+    //the same spans as one item step of the processing
+    private long measure(ObservationRegistry registry, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Observation.createNotStarted("item.process", registry)
+                    .highCardinalityKeyValue("item.id", String.valueOf(i))
+                    .observe(() -> {
+                        Observation.createNotStarted("item.load", registry).observe(() -> { });
+                        Observation.createNotStarted("item.save", registry).observe(() -> { });
+                    });
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,123 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//tracing is disabled in tests unless observability is auto-configured explicitly
+@SpringBootTest(properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureObservability(metrics = false)
+public class TracingTests {
+    @TestConfiguration
+    static class SpanCollectorConfig {
+        //stand-in for the otlp collector, keeps the exported spans in memory
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Autowired
+    private InMemorySpanExporter spanExporter;
+
+    @BeforeEach
+    void setup() {
+        itemRepository.deleteAll();
+        itemRepository.save(new Item(null, "Item1", "D1", "NEW", "trace1@example.com"));
+        itemRepository.save(new Item(null, "Item2", "D2", "NEW", "trace2@example.com"));
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        spanExporter.reset();
+    }
+
+    private List<SpanData> spansNamed(List<SpanData> spans, String name) {
+        return spans.stream().filter(span -> span.getName().equals(name)).toList();
+    }
+
+    @Test
+    void testItemSpansBelongToTheProcessingRun() throws Exception {
+        itemService.processItemsAsync().get(10, TimeUnit.SECONDS);
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+
+        List<SpanData> runs = spansNamed(spans, "items.process");
+        assertEquals(1, runs.size(), "The processing run should produce one span");
+        SpanData run = runs.get(0);
+
+        List<SpanData> itemSpans = spansNamed(spans, "item.process");
+        assertEquals(2, itemSpans.size(), "Every item should produce a span");
+        for (SpanData itemSpan : itemSpans) {
+            //the executor threads have to continue the trace of the thread that submitted the work
+            assertEquals(run.getTraceId(), itemSpan.getTraceId(), "Item spans should be in the trace of the run");
+            assertEquals(run.getSpanId(), itemSpan.getParentSpanId(), "Item spans should be children of the run");
+        }
+        for (String step : List.of("item.load", "item.save")) {
+            List<SpanData> stepSpans = spansNamed(spans, step);
+            assertEquals(2, stepSpans.size(), "Every item should produce a " + step + " span");
+            for (SpanData stepSpan : stepSpans) {
+                assertTrue(itemSpans.stream().anyMatch(itemSpan -> itemSpan.getSpanId().equals(stepSpan.getParentSpanId())),
+                        step + " spans should be children of an item span");
+            }
+        }
+    }
+
+    @Test
+    void testMdcPropagatedIntoProcessing() throws Exception {
+        Logger logger = (Logger) LoggerFactory.getLogger(ItemService.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        Level level = logger.getLevel();
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+        try {
+            MDC.put("requestId", "request-1");
+            itemService.processItemsAsync().get(10, TimeUnit.SECONDS);
+        } finally {
+            MDC.remove("requestId");
+            logger.detachAppender(appender);
+            logger.setLevel(level);
+        }
+
+        List<ILoggingEvent> itemEvents = appender.list.stream()
+                .filter(event -> event.getMessage().startsWith("Processing item")).toList();
+        assertEquals(2, itemEvents.size(), "Every item step should log");
+        for (ILoggingEvent event : itemEvents) {
+            assertNotEquals(Thread.currentThread().getName(), event.getThreadName(), "Items should be processed on the executor");
+            assertEquals("request-1", event.getMDCPropertyMap().get("requestId"), "The MDC of the caller should reach the item step");
+            assertNotNull(event.getMDCPropertyMap().get("traceId"), "The trace id should be in the MDC of the item step");
+        }
+    }
+}